@@ -0,0 +1,219 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A growable array-based bucket for hash tables
+ * <p>
+ * The hash codes of the elements are stored together with the elements.
+ * Searches compare the hash codes first and only call equals when the hash
+ * codes match, so most comparisons do not touch the elements at all.
+ * <p>
+ * Most buckets in a hash table hold a single element, so the first element and
+ * its hash code are stored in fields of the bucket itself. The arrays for the
+ * remaining elements are only allocated when a second element is added. No
+ * node is allocated for each element.
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ * @param <E> the type of elements stored in the bucket
+ */
+public class ArrayBucket<E> {
+
+    private static final int DEFAULT_CAPACITY = 2; //the capacity of the arrays when they are first allocated
+    private E first;
+    private int firstHash;
+    private int[] hashes; //the hash codes of the elements after the first, or null
+    private Object[] elements; //the elements after the first, or null
+    private int size;
+
+    /**
+     * Creates a new empty ArrayBucket
+     */
+    public ArrayBucket() {
+        size = 0;
+    }
+
+    /**
+     * Creates a new empty ArrayBucket that can hold the given number of
+     * elements before it grows
+     *
+     * @param capacity the initial capacity of the bucket
+     */
+    public ArrayBucket(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity. The capacity cannot be negative.");
+        }
+        if (capacity > 1) {
+            hashes = new int[capacity - 1];
+            elements = new Object[capacity - 1];
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds the element to the end of the bucket. The caller is responsible for
+     * checking that the element is not already in the bucket.
+     *
+     * @param element the element to add to the bucket
+     * @param hash the hash code of the element
+     */
+    public void add(E element, int hash) {
+        if (size == 0) {
+            first = element;
+            firstHash = hash;
+        } else {
+            if (elements == null) {
+                hashes = new int[DEFAULT_CAPACITY];
+                elements = new Object[DEFAULT_CAPACITY];
+            } else if (size - 1 == elements.length) {
+                int capacity = size + (size >> 1) + 1;
+                hashes = Arrays.copyOf(hashes, capacity);
+                elements = Arrays.copyOf(elements, capacity);
+            }
+            hashes[size - 1] = hash;
+            elements[size - 1] = element;
+        }
+        ++size;
+    }
+
+    /**
+     * Removes the given element from the bucket
+     *
+     * @param element the element to remove from the bucket
+     * @param hash the hash code of the element
+     * @return true if the element was removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(E element, int hash) {
+        int index = indexOf(element, hash);
+        if (index < 0) {
+            return false;
+        }
+        //the order of the elements is not significant, so move the last element into the gap
+        --size;
+        if (size == 0) {
+            first = null;
+        } else if (index == 0) {
+            first = (E) elements[size - 1];
+            firstHash = hashes[size - 1];
+            elements[size - 1] = null;
+        } else {
+            hashes[index - 1] = hashes[size - 1];
+            elements[index - 1] = elements[size - 1];
+            elements[size - 1] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the bucket contains the given element
+     *
+     * @param element the element to search for in the bucket
+     * @param hash the hash code of the element
+     * @return true if the bucket contains the element and false otherwise
+     */
+    public boolean contains(E element, int hash) {
+        return indexOf(element, hash) >= 0;
+    }
+
+    /**
+     * Gets the number of elements in the bucket
+     *
+     * @return the number of elements in the bucket
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the bucket is empty
+     *
+     * @return true if the bucket is empty and false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the element at the given index
+     *
+     * @param index the index of the element
+     * @return the element at the given index
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid index %d for a bucket of size %d", index, size));
+        }
+        return index == 0 ? first : (E) elements[index - 1];
+    }
+
+    /**
+     * Gets the hash code of the element at the given index
+     *
+     * @param index the index of the element
+     * @return the hash code of the element at the given index
+     */
+    public int hash(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid index %d for a bucket of size %d", index, size));
+        }
+        return index == 0 ? firstHash : hashes[index - 1];
+    }
+
+    /**
+     * Copies the elements in the bucket into the given array
+     *
+     * @param array the array to copy the elements into
+     * @param offset the index in the array of the first copied element
+     * @return the index in the array after the last copied element
+     */
+    public int copyInto(Object[] array, int offset) {
+        if (size > 0) {
+            array[offset] = first;
+        }
+        if (size > 1) {
+            System.arraycopy(elements, 0, array, offset + 1, size - 1);
+        }
+        return offset + size;
+    }
+
+    /**
+     * Performs the given action for each element in the bucket
+     *
+     * @param action the action to perform
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        if (size > 0) {
+            action.accept(first);
+        }
+        for (int i = 0; i < size - 1; ++i) {
+            action.accept((E) elements[i]);
+        }
+    }
+
+    /*
+     * Finds the index of the given element
+     *
+     * @param element the element to search for
+     * @param hash the hash code of the element
+     * @return the index of the element or -1 if it is not in the bucket
+     */
+    private int indexOf(E element, int hash) {
+        if (size == 0) {
+            return -1;
+        }
+        if (firstHash == hash && element.equals(first)) {
+            return 0;
+        }
+        for (int i = 0; i < size - 1; ++i) {
+            if (hashes[i] == hash && element.equals(elements[i])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,490 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Simple timing benchmarks for the Spell Checker project
+ * <p>
+ * The benchmarks are run from the command line:
+ * <p>
+ * cache &lt;dictionary&gt; &lt;cache file&gt; - compares the latency of
+ * checkWord in a newly started JVM without a suggestion cache, with an empty
+ * cache, and with the cache populated by the previous run
+ * <p>
+ * collections &lt;dictionary&gt; - compares the allocation and throughput of
+ * hash tables built from SinglyLinkedList and ArrayBucket buckets
+ * <p>
+ * segmentation &lt;dictionary&gt; [corpus] - measures the time taken to
+ * segment each whitespace-separated token of the corpus file, or of generated
+ * run-together words and random letters if no corpus is given
+ * <p>
+ * startup &lt;dictionary&gt; &lt;snapshot&gt; [class archive] - compares the
+ * time taken to create a SpellChecker, and to start and stop the Driver in a
+ * new JVM, from the dictionary file and from a snapshot of it, optionally
+ * with an AppCDS class archive
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.23
+ */
+public class Benchmark {
+
+    private static final long SEED = 610;
+    private static final int QUERIES = 20000;
+    private static final int DISTINCT_MISSPELLINGS = 2000;
+    private static final int ROUNDS = 20;
+    private static final int STARTS = 10;
+    private static final int PRELOAD = 1000;
+
+    /**
+     * the main method used to run a benchmark
+     *
+     * @param args command line arguments; the name of the benchmark followed by
+     * its arguments (see the class description)
+     * @throws IOException if a file used by the benchmark cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("cache")) {
+            cache(args[1], args[2]);
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("cache-run")) {
+            cacheRun(args[1], args[2], args.length == 4 ? args[3] : null);
+        } else if (args.length == 2 && args[0].equals("collections")) {
+            collections(args[1]);
+        } else if ((args.length == 2 || args.length == 3) && args[0].equals("segmentation")) {
+            segmentation(args[1], args.length == 3 ? args[2] : null);
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("startup")) {
+            startup(args[1], args[2], args.length == 4 ? args[3] : null);
+        } else {
+            System.out.println("Usage: cache <dictionary> <cache file>");
+            System.out.println("       collections <dictionary>");
+            System.out.println("       segmentation <dictionary> [corpus]");
+            System.out.println("       startup <dictionary> <snapshot> [class archive]");
+        }
+    }
+
+    /*
+     * Measures the checkWord latency of a SpellChecker in a new JVM without a
+     * suggestion cache, with an empty (cold) cache, and after a restart with
+     * the cache populated by the cold run (warm). Each run is a separate
+     * process so that the warm run does not benefit from a warmed-up JIT.
+     *
+     * @param dictionary the name of the dictionary file
+     * @param cacheFile the name of the cache file; it is deleted first
+     */
+    private static void cache(String dictionary, String cacheFile) throws IOException {
+        new File(cacheFile).delete();
+        run(javaCommand(null, Benchmark.class, "cache-run", dictionary, "no cache"));
+        run(javaCommand(null, Benchmark.class, "cache-run", dictionary, "cold start", cacheFile));
+        run(javaCommand(null, Benchmark.class, "cache-run", dictionary, "warm start", cacheFile));
+    }
+
+    /*
+     * Performs a single run of the cache benchmark in the current JVM
+     *
+     * @param dictionary the name of the dictionary file
+     * @param name the name of the measurement
+     * @param cacheFile the name of the cache file or null to run without a
+     * cache
+     */
+    private static void cacheRun(String dictionary, String name, String cacheFile) throws IOException {
+        String[] queries = misspellings(dictionary);
+        SpellChecker checker = cacheFile != null ? new SpellChecker(dictionary, cacheFile, PRELOAD) : new SpellChecker(dictionary);
+        long[] times = time(checker, queries);
+        checker.close();
+        report(name, times);
+    }
+
+    /*
+     * Builds a hash table of the dictionary words with SinglyLinkedList buckets
+     * and with ArrayBucket buckets, and measures the bytes allocated while
+     * building it, the time taken by contains for words and misspellings, and
+     * the time taken to copy its elements into an array.
+     *
+     * @param dictionary the name of the dictionary file
+     */
+    @SuppressWarnings("unchecked")
+    private static void collections(String dictionary) throws IOException {
+        String[] words = readWords(dictionary).toArray(new String[0]);
+        String[] queries = misspellings(dictionary);
+        int tableSize = BigInteger.valueOf(words.length * 4 / 3).nextProbablePrime().intValue();
+        for (int round = 0; round < ROUNDS; ++round) {
+            boolean last = round == ROUNDS - 1; //earlier rounds warm up the JIT
+
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            SinglyLinkedList<String>[] lists = new SinglyLinkedList[tableSize];
+            for (String word : words) {
+                int index = index(word.hashCode(), tableSize);
+                if (lists[index] == null) {
+                    lists[index] = new SinglyLinkedList<>();
+                }
+                if (!lists[index].contains(word)) {
+                    lists[index].append(word);
+                }
+            }
+            long buildTime = System.nanoTime() - start;
+            allocated = allocatedBytes() - allocated;
+            start = System.nanoTime();
+            int found = 0;
+            for (String word : words) {
+                SinglyLinkedList<String> list = lists[index(word.hashCode(), tableSize)];
+                found += list != null && list.contains(word) ? 1 : 0;
+            }
+            for (String word : queries) {
+                SinglyLinkedList<String> list = lists[index(word.hashCode(), tableSize)];
+                found += list != null && list.contains(word) ? 1 : 0;
+            }
+            long containsTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            Object[] array = new Object[words.length];
+            int j = 0;
+            for (SinglyLinkedList<String> list : lists) {
+                if (list != null) {
+                    for (Object element : list.toArray()) {
+                        array[j++] = element;
+                    }
+                }
+            }
+            long toArrayTime = System.nanoTime() - start;
+            if (last) {
+                report("SinglyLinkedList", allocated, buildTime, containsTime, toArrayTime, words.length + queries.length, found + j);
+            }
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            ArrayBucket<String>[] buckets = new ArrayBucket[tableSize];
+            for (String word : words) {
+                int hash = word.hashCode();
+                int index = index(hash, tableSize);
+                if (buckets[index] == null) {
+                    buckets[index] = new ArrayBucket<>();
+                }
+                if (!buckets[index].contains(word, hash)) {
+                    buckets[index].add(word, hash);
+                }
+            }
+            buildTime = System.nanoTime() - start;
+            allocated = allocatedBytes() - allocated;
+            start = System.nanoTime();
+            found = 0;
+            for (String word : words) {
+                int hash = word.hashCode();
+                ArrayBucket<String> bucket = buckets[index(hash, tableSize)];
+                found += bucket != null && bucket.contains(word, hash) ? 1 : 0;
+            }
+            for (String word : queries) {
+                int hash = word.hashCode();
+                ArrayBucket<String> bucket = buckets[index(hash, tableSize)];
+                found += bucket != null && bucket.contains(word, hash) ? 1 : 0;
+            }
+            containsTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            array = new Object[words.length];
+            j = 0;
+            for (ArrayBucket<String> bucket : buckets) {
+                if (bucket != null) {
+                    j = bucket.copyInto(array, j);
+                }
+            }
+            toArrayTime = System.nanoTime() - start;
+            if (last) {
+                report("ArrayBucket", allocated, buildTime, containsTime, toArrayTime, words.length + queries.length, found + j);
+            }
+        }
+    }
+
+    /*
+     * Measures the time taken to segment each token of a corpus
+     *
+     * @param dictionary the name of the dictionary file
+     * @param corpus the name of the corpus file or null to generate tokens
+     */
+    private static void segmentation(String dictionary, String corpus) throws IOException {
+        ArrayList<String> tokens = new ArrayList<>();
+        if (corpus != null) {
+            try (Scanner scanner = new Scanner(new File(corpus))) {
+                while (scanner.hasNext()) {
+                    tokens.add(scanner.next().toLowerCase());
+                }
+            }
+            if (tokens.isEmpty()) {
+                System.out.printf("The corpus, %s, contains no tokens.%n", corpus);
+                System.out.println("Usage: segmentation <dictionary> [corpus]");
+                return;
+            }
+        } else {
+            ArrayList<String> words = readWords(dictionary);
+            Random random = new Random(SEED);
+            for (int i = 0; i < QUERIES; ++i) {
+                if (i % 10 == 0) {
+                    //random letters, up to several times longer than a normal word
+                    char[] letters = new char[5 + random.nextInt(60)];
+                    for (int j = 0; j < letters.length; ++j) {
+                        letters[j] = (char) ('a' + random.nextInt(26));
+                    }
+                    tokens.add(new String(letters));
+                } else {
+                    tokens.add(words.get(random.nextInt(words.size())) + words.get(random.nextInt(words.size())));
+                }
+            }
+        }
+        SpellChecker checker = new SpellChecker(dictionary);
+        long[] times = new long[tokens.size()];
+        int segmented = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            segmented = 0;
+            for (int i = 0; i < times.length; ++i) {
+                long start = System.nanoTime();
+                String segment = checker.segment(tokens.get(i));
+                times[i] = System.nanoTime() - start;
+                segmented += segment != null ? 1 : 0;
+            }
+        }
+        report("segmentation", times);
+        System.out.printf("%d of %d tokens segmented%n", segmented, times.length);
+    }
+
+    /*
+     * Measures the time taken to create a SpellChecker from the dictionary
+     * file and from a snapshot, both within this JVM and including the startup
+     * of a new JVM
+     *
+     * @param dictionary the name of the dictionary file
+     * @param snapshot the name of the snapshot file; it is created first
+     * @param archive the name of an AppCDS class archive created from the
+     * snapshot or null to skip that measurement
+     */
+    private static void startup(String dictionary, String snapshot, String archive) throws IOException {
+        new SpellChecker(dictionary).saveSnapshot(snapshot);
+        long[] textTimes = new long[ROUNDS];
+        long[] snapshotTimes = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; ++i) {
+            long start = System.nanoTime();
+            new SpellChecker(dictionary);
+            textTimes[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            new SpellChecker(snapshot);
+            snapshotTimes[i] = System.nanoTime() - start;
+        }
+        report("construct from text", textTimes);
+        report("construct from snapshot", snapshotTimes);
+        report("start JVM with text", start(dictionary, null));
+        report("start JVM with snapshot", start(snapshot, null));
+        if (archive != null) {
+            report("start JVM with CDS", start(snapshot, archive));
+        }
+    }
+
+    /*
+     * Times starting the Driver in a new JVM and closing it immediately
+     *
+     * @param dictionary the name of the dictionary or snapshot file
+     * @param archive the name of the AppCDS class archive or null
+     * @return the time taken by each start in nanoseconds
+     */
+    private static long[] start(String dictionary, String archive) throws IOException {
+        ArrayList<String> command = javaCommand(archive, Driver.class, dictionary);
+        long[] times = new long[STARTS];
+        for (int i = 0; i < STARTS; ++i) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (OutputStream in = process.getOutputStream()) {
+                in.write("x\n".getBytes(StandardCharsets.UTF_8));
+            }
+            try (InputStream out = process.getInputStream()) {
+                byte[] discarded = new byte[4096];
+                while (out.read(discarded) >= 0) {
+                    //the output of the Driver is not needed
+                }
+            }
+            try {
+                process.waitFor();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            times[i] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    /*
+     * Creates the command that runs the main method of the given class in a
+     * new JVM with the current class path
+     *
+     * @param archive the name of the AppCDS class archive or null
+     * @param main the class containing the main method
+     * @param args the arguments for the main method
+     * @return the command
+     */
+    private static ArrayList<String> javaCommand(String archive, Class<?> main, String... args) {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(main.getName());
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    /*
+     * Runs the given command, sharing the output of this process, and waits
+     * for it to finish
+     *
+     * @param command the command
+     */
+    private static void run(ArrayList<String> command) throws IOException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        try {
+            process.waitFor();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+    }
+
+    /*
+     * Creates a list of queries by misspelling words from the dictionary. A
+     * small number of misspellings are repeated far more often than the rest,
+     * as they would be in real input.
+     *
+     * @param dictionary the name of the dictionary file
+     * @return the misspelled words in the order they should be checked
+     */
+    static String[] misspellings(String dictionary) throws IOException {
+        ArrayList<String> words = readWords(dictionary);
+        Random random = new Random(SEED);
+        String[] distinct = new String[DISTINCT_MISSPELLINGS];
+        for (int i = 0; i < distinct.length; ++i) {
+            String word = words.get(random.nextInt(words.size()));
+            while (word.length() < 3) {
+                word = words.get(random.nextInt(words.size()));
+            }
+            //swap two adjacent letters
+            int j = 1 + random.nextInt(word.length() - 1);
+            distinct[i] = word.substring(0, j - 1) + word.charAt(j) + word.charAt(j - 1) + word.substring(j + 1);
+        }
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < queries.length; ++i) {
+            //squaring a uniform value favors the misspellings at the front of the list
+            double r = random.nextDouble();
+            queries[i] = distinct[(int) (r * r * distinct.length)];
+        }
+        return queries;
+    }
+
+    /*
+     * Reads the words in the given file, one word per line
+     *
+     * @param file the name of the file
+     * @return the words in the file
+     */
+    static ArrayList<String> readWords(String file) throws IOException {
+        ArrayList<String> words = new ArrayList<>(50000);
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String word = reader.readLine();
+            while (word != null) {
+                words.add(word.toLowerCase());
+                word = reader.readLine();
+            }
+        }
+        return words;
+    }
+
+    /*
+     * Times each call to checkWord
+     *
+     * @param checker the SpellChecker to use
+     * @param queries the words to check
+     * @return the time taken by each call in nanoseconds
+     */
+    private static long[] time(SpellChecker checker, String[] queries) {
+        long[] times = new long[queries.length];
+        for (int i = 0; i < queries.length; ++i) {
+            long start = System.nanoTime();
+            checker.checkWord(queries[i]);
+            times[i] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    /*
+     * Returns the table index for the given hash code in the same way as
+     * HashSet
+     *
+     * @param hash the hash code of an element
+     * @param tableSize the size of the table
+     * @return the table index for the hash code
+     */
+    private static int index(int hash, int tableSize) {
+        int index = hash % tableSize;
+        return index < 0 ? index + tableSize : index;
+    }
+
+    /*
+     * Gets the number of bytes allocated by the current thread so far
+     *
+     * @return the number of bytes allocated or -1 if the JVM cannot measure it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /*
+     * Prints the results of a collections benchmark
+     *
+     * @param name the name of the collection
+     * @param allocated the bytes allocated while building the table
+     * @param buildTime the time taken to build the table in nanoseconds
+     * @param containsTime the time taken by the contains calls in nanoseconds
+     * @param toArrayTime the time taken to copy the table into an array in
+     * nanoseconds
+     * @param lookups the number of contains calls
+     * @param checksum a value derived from the results so that the work cannot
+     * be optimized away
+     */
+    private static void report(String name, long allocated, long buildTime, long containsTime, long toArrayTime, int lookups, int checksum) {
+        System.out.printf("%-18s build %8.2f ms %10.1f KB   contains %6.1f ns/op   toArray %8.2f ms   (%d)%n", name,
+                buildTime / 1e6, allocated / 1024.0, (double) containsTime / lookups, toArrayTime / 1e6, checksum);
+    }
+
+    /*
+     * Prints the median, 99th percentile and total of the given times
+     *
+     * @param name the name of the measurement
+     * @param times the times in nanoseconds
+     */
+    static void report(String name, long[] times) {
+        if (times.length == 0) {
+            System.out.printf("%-24s no measurements%n", name);
+            return;
+        }
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long time : sorted) {
+            total += time;
+        }
+        System.out.printf("%-24s p50 %8.1f us   p99 %8.1f us   total %8.1f ms%n", name,
+                sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3, total / 1e6);
+    }
+}
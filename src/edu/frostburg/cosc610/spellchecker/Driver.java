@@ -1,5 +1,6 @@
 package edu.frostburg.cosc610.spellchecker;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -10,23 +11,37 @@ import java.util.Scanner;
  */
 public class Driver {
 
+    private static final int CACHE_PRELOAD = 1000; //the number of cached misspellings read at startup
+
     /**
      * the main method used to start the program
      *
-     * @param args command line arguments; exactly one argument is required<p>
-     * The argument should be the name of the file containing the list of words
-     * for the dictionary. Each word in the file must be on a separate line.
+     * @param args command line arguments; one or two arguments are required<p>
+     * The first argument should be the name of the file containing the list of
+     * words for the dictionary. Each word in the file must be on a separate
+     * line.<p>
+     * The optional second argument is the name of the file used to cache the
+     * suggestions for misspelled words between runs. Only one program can use
+     * a cache file at a time; if it is in use, the words are checked without
+     * the cache.<p>
+     * Alternatively, the arguments -snapshot, the name of the dictionary file
+     * and the name of a snapshot file save the built dictionary to the snapshot
+     * file, which can then be used instead of the dictionary file.
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
+        if (args.length == 3 && args[0].equals("-snapshot")) {
+            saveSnapshot(args[1], args[2]);
+            return;
+        }
+        if (args.length != 1 && args.length != 2) {
             System.out.println("Please provide the file name of the dictionary file as a command line argument.");
         }
-        SpellChecker checker = new SpellChecker(args[0]);
+        SpellChecker checker = args.length == 2 ? new SpellChecker(args[0], args[1], CACHE_PRELOAD) : new SpellChecker(args[0]);
         Scanner scanner = new Scanner(System.in);
         String[] suggestions;
         String word;
         System.out.println("Enter a word to check its spelling or type x to close the program.");
-        word = scanner.nextLine();
+        word = scanner.hasNextLine() ? scanner.nextLine() : "x"; //treat the end of the input like x
         while (!word.equalsIgnoreCase("x")) {
             suggestions = checker.checkWord(word);
             int length = suggestions.length;
@@ -42,7 +57,25 @@ public class Driver {
                 System.out.println();
             }
             System.out.println("Enter a word to check its spelling or type x to close the program.");
-            word = scanner.nextLine();
+            word = scanner.hasNextLine() ? scanner.nextLine() : "x";
+        }
+        checker.close();
+    }
+
+    /*
+     * Builds the dictionary from the given file and saves it as a snapshot
+     *
+     * @param file the name of the dictionary file
+     * @param snapshot the name of the snapshot file
+     */
+    private static void saveSnapshot(String file, String snapshot) {
+        SpellChecker checker = new SpellChecker(file);
+        try {
+            checker.saveSnapshot(snapshot);
+            System.out.printf("The snapshot of %s was saved to %s.%n", file, snapshot);
+        } catch (IOException ex) {
+            System.out.printf("The snapshot, %s, could not be saved.%n", snapshot);
+            System.exit(1);
         }
     }
 }
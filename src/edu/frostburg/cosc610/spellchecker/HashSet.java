@@ -1,13 +1,25 @@
 package edu.frostburg.cosc610.spellchecker;
 
 import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * HashSet is a hash-based implementation of a Set.
  * <P>
  * By definition, sets with repeated elements are considered equal. This
  * implementation does not store repeated elements that are evaluated as equal
- * by their Comparable.
+ * by their equals method.
+ * <p>
+ * Each slot of the table holds an {@link ArrayBucket}, which stores the hash
+ * codes of its elements so that equals is only called when the hash codes
+ * match. The elements can be iterated or streamed without copying them.
  * <p>
  * The default load factor for this HashSet is 0.75. The underlying table for
  * the HashSet is not dynamic. As a result, when the load factor increases, the
@@ -17,28 +29,43 @@ import java.math.BigInteger;
  * be manually expanded by getting an array and creating a new HashSet.
  *
  * @author Kerwin Yoder
- * @version 2016.03.29
+ * @version 2016.04.09
  * @param <E> the type of elements stored in the HashSet
  */
-public class HashSet<E extends Comparable> {
+public class HashSet<E> implements Iterable<E> {
 
     // 1610612711 is the maximum prime number that allows a default load factor of less than .75
     private static final int MAX_TABLE_SIZE = 1610612711;
     private final int tableSize; //the size of the table
     private int size; //the number of elements stored in the table
-    private final SinglyLinkedList[] table;
+    private final ArrayBucket<E>[] table;
 
     /**
      * Creates a new HashSet with the given size and a load factor of .75.
      *
      * @param size the size of the HashSet
      */
+    @SuppressWarnings("unchecked")
     public HashSet(int size) {
         tableSize = getTableSize(size);
-        table = new SinglyLinkedList[tableSize];
+        table = (ArrayBucket<E>[]) new ArrayBucket[tableSize];
         this.size = 0;
     }
 
+    /*
+     * Creates a HashSet that uses the given table. The buckets must already be
+     * at the indexes their elements hash to. This is used to restore a HashSet
+     * without hashing its elements again.
+     *
+     * @param table the table of buckets
+     * @param size the number of elements stored in the table
+     */
+    HashSet(ArrayBucket<E>[] table, int size) {
+        this.tableSize = table.length;
+        this.table = table;
+        this.size = size;
+    }
+
     /**
      * Adds a new element to the HashSet
      *
@@ -49,15 +76,16 @@ public class HashSet<E extends Comparable> {
         if (element == null) {
             return false;
         }
-        int index = hash(element);
-        SinglyLinkedList list = table[index];
-        //if no elements are stored at this index, create a new List
-        if (list == null) {
-            list = new SinglyLinkedList();
-            table[index] = list;
+        int hash = element.hashCode();
+        int index = index(hash);
+        ArrayBucket<E> bucket = table[index];
+        //if no elements are stored at this index, create a new bucket
+        if (bucket == null) {
+            bucket = new ArrayBucket<>();
+            table[index] = bucket;
         }
-        if (!list.contains(element)) {
-            list.append(element);
+        if (!bucket.contains(element, hash)) {
+            bucket.add(element, hash);
             ++size;
             return true;
         }
@@ -74,12 +102,12 @@ public class HashSet<E extends Comparable> {
         if (element == null) {
             return false;
         }
-        int index = hash(element);
-        SinglyLinkedList list = table[index];
-        if (list == null) {
+        int hash = element.hashCode();
+        ArrayBucket<E> bucket = table[index(hash)];
+        if (bucket == null) {
             return false;
         }
-        boolean removed = list.remove(element);
+        boolean removed = bucket.remove(element, hash);
         if (removed) {
             --size;
         }
@@ -96,12 +124,12 @@ public class HashSet<E extends Comparable> {
         if (element == null) {
             return false;
         }
-        int index = hash(element);
-        SinglyLinkedList list = table[index];
-        if (list == null) {
+        int hash = element.hashCode();
+        ArrayBucket<E> bucket = table[index(hash)];
+        if (bucket == null) {
             return false;
         }
-        return list.contains(element);
+        return bucket.contains(element, hash);
     }
 
     /**
@@ -139,16 +167,7 @@ public class HashSet<E extends Comparable> {
      */
     public Object[] toArray() {
         Object[] array = new Object[size];
-        int j = 0;
-        for (int i = 0; i < tableSize; ++i) {
-            SinglyLinkedList list = table[i];
-            if (list != null) {
-                Object[] bucketArray = list.toArray();
-                for (Object element : bucketArray) {
-                    array[j++] = element;
-                }
-            }
-        }
+        copyInto(array);
         return array;
     }
 
@@ -161,19 +180,85 @@ public class HashSet<E extends Comparable> {
      * @return an array of given class type containing the elements in the
      * HashSet
      */
+    @SuppressWarnings("unchecked")
     public E[] toArray(Class<?> componentType) {
         E[] array = (E[]) java.lang.reflect.Array.newInstance(componentType, size);
-        int j = 0;
-        for (int i = 0; i < tableSize; ++i) {
-            SinglyLinkedList list = table[i];
-            if (list != null) {
-                Object[] bucketArray = list.toArray();
-                for (Object element : bucketArray) {
-                    array[j++] = (E) element;
+        copyInto(array);
+        return array;
+    }
+
+    /**
+     * Returns an array created by the given generator containing the elements
+     * in the HashSet. Unlike {@link #toArray(Class)}, this does not use
+     * reflection.
+     *
+     * @param generator a function that creates an array of the requested
+     * length (e.g. String[]::new)
+     * @return an array containing the elements in the HashSet
+     */
+    public E[] toArray(IntFunction<E[]> generator) {
+        E[] array = generator.apply(size);
+        copyInto(array);
+        return array;
+    }
+
+    /**
+     * Returns an iterator over the elements in the HashSet. The iterator does
+     * not support removal, and the HashSet must not be modified while it is in
+     * use.
+     *
+     * @return an iterator over the elements in the HashSet
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int slot = -1; //the table index of the current bucket
+            private int position = 0; //the index of the next element in the current bucket
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public E next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                while (slot < 0 || table[slot] == null || position >= table[slot].size()) {
+                    ++slot;
+                    position = 0;
                 }
+                --remaining;
+                return table[slot].get(position++);
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each element in the HashSet
+     *
+     * @param action the action to perform
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < tableSize; ++i) {
+            ArrayBucket<E> bucket = table[i];
+            if (bucket != null) {
+                bucket.forEach(action);
             }
         }
-        return array;
+    }
+
+    /**
+     * Returns a sequential stream of the elements in the HashSet
+     *
+     * @return a stream of the elements in the HashSet
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size,
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /*
@@ -200,16 +285,48 @@ public class HashSet<E extends Comparable> {
     }
 
     /*
-     * Returns the hash value (table index) for the given element.
+     * Gets the size of the underlying table
      *
-     * @param element
-     * @return
+     * @return the size of the underlying table
      */
-    private int hash(E element) {
-        if (element == null) {
-            throw new IllegalArgumentException("Invalid element. A null element cannot be hashed.");
+    int tableSize() {
+        return tableSize;
+    }
+
+    /*
+     * Gets the bucket at the given table index
+     *
+     * @param index the table index
+     * @return the bucket at the index or null if no bucket was created there
+     */
+    ArrayBucket<E> bucket(int index) {
+        return table[index];
+    }
+
+    /*
+     * Copies the elements in the HashSet into the given array, which must be
+     * at least as long as the size of the HashSet.
+     *
+     * @param array the array to copy the elements into
+     */
+    private void copyInto(Object[] array) {
+        int j = 0;
+        for (int i = 0; i < tableSize; ++i) {
+            ArrayBucket<E> bucket = table[i];
+            if (bucket != null) {
+                j = bucket.copyInto(array, j);
+            }
         }
-        int index = element.hashCode() % tableSize;
+    }
+
+    /*
+     * Returns the table index for the given hash code.
+     *
+     * @param hash the hash code of an element
+     * @return the table index for the hash code
+     */
+    private int index(int hash) {
+        int index = hash % tableSize;
         return index < 0 ? index + tableSize : index; //Use math mod function to ensure the index is positive
     }
 }
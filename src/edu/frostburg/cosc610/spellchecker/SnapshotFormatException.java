@@ -0,0 +1,24 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.io.IOException;
+
+/**
+ * Signals that a snapshot file created by
+ * {@link SpellChecker#saveSnapshot(String)} is truncated or corrupted.
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class SnapshotFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new SnapshotFormatException with the given detail message
+     *
+     * @param message the detail message
+     */
+    public SnapshotFormatException(String message) {
+        super(message);
+    }
+}
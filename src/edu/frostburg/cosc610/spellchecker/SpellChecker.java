@@ -1,14 +1,26 @@
 package edu.frostburg.cosc610.spellchecker;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
- * A Spell Checker that checks for four types of common errors:
+ * A Spell Checker that checks for five types of common errors:
  * <p>
  * 1. Swapping letters (e.g. bxo --&gt; box)
  * <p>
@@ -18,32 +30,90 @@ import java.util.Arrays;
  * <p>
  * 4. Wrong characters (e.g. bux --&gt; box)
  * <p>
+ * 5. Run-together or split words (e.g. inthe --&gt; in the, some thing --&gt;
+ * something)
+ * <p>
  * Note: The Spell Checker is not case sensitive.
+ * <p>
+ * Optionally, the suggestions for misspelled words can be stored in a
+ * {@link SuggestionCache} so that they do not need to be computed again after
+ * the program is restarted.
+ * <p>
+ * A fully built dictionary can be saved as a snapshot with
+ * {@link #saveSnapshot(String)}. A snapshot file can be used anywhere a
+ * dictionary file can; loading it skips reading the words and building the
+ * hash table.
  *
  * @author Kerwin Yoder
- * @version 2016.03.19
+ * @version 2016.04.23
  */
 public class SpellChecker {
 
+    // Increase when the suggestions produced for a word change; this invalidates existing suggestion caches.
+    private static final int SUGGESTION_VERSION = 4;
+    // Increase when the layout of snapshot files changes; this invalidates existing snapshots.
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int MAX_SEGMENTS = 3; //the maximum number of words a run-together word is split into
+    private static final int MAX_SEGMENT_LENGTH = 32; //the length of the longest word a run-together word is split into
+    private static final HashSet<String> SHORT_WORDS = new HashSet<>(40); //the words of one or two letters used to split run-together words
+    private static final int SNAPSHOT_MAGIC = 0x00534353; //"\0SCS", which cannot start a dictionary file
     private HashSet<String> dictionary;
     private HashSet<String> suggestions;
+    private long dictionaryHash; //the hash of the words in the dictionary
+    private int longestWord; //the length of the longest word in the dictionary
+    private SuggestionCache cache;
+
+    static {
+        String[] words = {"a", "i", "ad", "am", "an", "as", "at", "be", "by", "do", "go", "he", "if", "in", "is",
+            "it", "me", "my", "no", "of", "oh", "ok", "on", "or", "so", "to", "up", "us", "we"};
+        for (String word : words) {
+            SHORT_WORDS.add(word);
+        }
+    }
 
     /**
      * Creates a new SpellChecker using the file with the given name to create
      * the dictionary.
      *
-     * @param file the name of the file containing the list of words
+     * @param file the name of the file containing the list of words or a
+     * snapshot created by {@link #saveSnapshot(String)}
      */
     public SpellChecker(String file) {
         suggestions = new HashSet<>(30);
         try {
-            initializeDictionary(file);
+            if (isSnapshot(file)) {
+                loadSnapshot(file);
+            } else {
+                initializeDictionary(file);
+            }
         } catch (FileNotFoundException ex) {
             System.out.printf("The file, %s, could not be found.", file);
             System.exit(1);
         }
     }
 
+    /**
+     * Creates a new SpellChecker using the file with the given name to create
+     * the dictionary and the cache file with the given name to store the
+     * suggestions for misspelled words. If the cache cannot be opened, for
+     * example because another program is using it, the SpellChecker works
+     * without it.
+     *
+     * @param file the name of the file containing the list of words
+     * @param cacheFile the name of the file containing the suggestion cache
+     * @param preload the number of the most frequently misspelled words to
+     * read from the cache immediately
+     */
+    public SpellChecker(String file, String cacheFile, int preload) {
+        this(file);
+        try {
+            //the cache depends on both the words and the way suggestions are found
+            cache = new SuggestionCache(cacheFile, dictionaryHash * 31 + SUGGESTION_VERSION, preload);
+        } catch (IOException ex) {
+            System.out.printf("The suggestion cache, %s, could not be opened.%n", cacheFile);
+        }
+    }
+
     /**
      * Checks if the given word is spelled correctly. See the class description
      * for details about which types of misspellings are detected and corrected.
@@ -60,16 +130,91 @@ public class SpellChecker {
         if (dictionary.contains(word)) {
             return new String[]{word};
         }
+        if (cache != null) {
+            try {
+                String[] cached = cache.get(word);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException ex) {
+                System.out.println("The suggestion cache could not be updated and will no longer be used.");
+                cache = null;
+            }
+        }
         suggestions.clear();
         swappedLetters(word);
         insertedLetters(word);
         missingLetters(word);
         wrongLetters(word);
-        String[] temp = suggestions.toArray(String.class);
+        segmentedWords(word);
+        String[] temp = suggestions.toArray(String[]::new);
         Arrays.sort(temp);
+        if (cache != null) {
+            try {
+                cache.put(word, temp);
+            } catch (IOException ex) {
+                System.out.println("The suggestion cache could not be updated and will no longer be used.");
+                cache = null;
+            }
+        }
         return temp;
     }
 
+    /**
+     * Saves the dictionary to a snapshot file. Creating a SpellChecker from the
+     * snapshot is much faster than creating it from the list of words. A
+     * snapshot can only be loaded by a SpellChecker that uses the same
+     * snapshot layout. It stores the hash of the words rather than anything
+     * that depends on how suggestions are found, so it remains valid when the
+     * suggestions change.
+     * <p>
+     * The snapshot stores the table of the dictionary exactly as it is in
+     * memory: each non-empty bucket is stored with its table index, followed
+     * by the hash code and the UTF-8 bytes of each of its words.
+     *
+     * @param file the name of the snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            int tableSize = dictionary.tableSize();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(dictionaryHash);
+            out.writeInt(longestWord);
+            out.writeInt(tableSize);
+            out.writeInt(dictionary.size());
+            for (int i = 0; i < tableSize; ++i) {
+                ArrayBucket<String> bucket = dictionary.bucket(i);
+                if (bucket != null && !bucket.isEmpty()) {
+                    out.writeInt(i);
+                    out.writeInt(bucket.size());
+                    for (int j = 0; j < bucket.size(); ++j) {
+                        byte[] bytes = bucket.get(j).getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bucket.hash(j));
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the suggestion cache, if one is used, so that the hits of the most
+     * recently looked up words are saved and its file is compacted if needed.
+     */
+    public void close() {
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException ex) {
+                System.out.println("The suggestion cache could not be closed.");
+            }
+            cache = null;
+        }
+    }
+
     /*
      * Checks for swapped letters (e.g. bxo --> box) and adds any suggestions to
      * the suggestions list.
@@ -172,6 +317,261 @@ public class SpellChecker {
         }
     }
 
+    /*
+     * Checks for run-together words (e.g. inthe --> in the) and split words
+     * (e.g. some thing --> something)
+     *
+     * @param word the word to check for run-together or split words
+     */
+    private void segmentedWords(String word) {
+        if (word == null) {
+            throw new NullPointerException("The word argument in segmentedWords is null");
+        }
+        String temp = segment(word);
+        if (temp != null) {
+            suggestions.add(temp);
+        }
+    }
+
+    /**
+     * Finds the dictionary words that make up the given word. If the word
+     * contains whitespace, the parts are joined into a single word. Otherwise,
+     * the word is split into at most three dictionary words.
+     * <p>
+     * Words of one or two letters are only used if they are common short words
+     * (e.g. a, is, of), and only if the word cannot be split without them.
+     * Splits into fewer words are preferred, and of those, the split whose
+     * shortest word is longest (e.g. isit --&gt; is it rather than i sit).
+     * <p>
+     * Each substring is looked up in the dictionary at most once, and only
+     * substrings no longer than the longest dictionary word, and never longer
+     * than 32 characters, are considered. Words too long to be split into three
+     * such substrings are rejected immediately, so the time taken is bounded no
+     * matter how long the word or the lines of the dictionary file are.
+     *
+     * @param word the lower case word to segment
+     * @return the joined or split word, or null if no segmentation was found
+     */
+    String segment(String word) {
+        StringBuilder builder = new StringBuilder(word.length() + MAX_SEGMENTS);
+        int length = word.length();
+        for (int i = 0; i < length; ++i) {
+            char c = word.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        if (builder.length() != length) {
+            String joined = builder.toString();
+            return builder.length() > 0 && dictionary.contains(joined) ? joined : null;
+        }
+        int longest = Math.min(longestWord, MAX_SEGMENT_LENGTH);
+        if (length < 2 || length > MAX_SEGMENTS * longest) {
+            return null;
+        }
+        //lookups[i * (longest + 1) + k] remembers if the k characters starting at i are a word: 0 unknown, 1 yes, 2 no
+        byte[] lookups = new byte[length * (longest + 1)];
+        int[] start = split(word, longest, lookups, false);
+        if (start == null) {
+            start = split(word, longest, lookups, true);
+            if (start == null) {
+                return null;
+            }
+        }
+        builder.setLength(0);
+        for (int end = length; end > 0; end = start[end]) {
+            if (end != length) {
+                builder.insert(0, ' ');
+            }
+            builder.insert(0, word, start[end], end);
+        }
+        return builder.toString();
+    }
+
+    /*
+     * Splits the word into two or three dictionary words using dynamic
+     * programming. shortest[c][end] is the length of the shortest word in the
+     * best split of the first end characters into c words, or 0 if there is no
+     * such split, and from[c][end] is where the last word of that split begins.
+     *
+     * @param word the word to split
+     * @param longest the length of the longest word to use
+     * @param lookups the results of the dictionary lookups made so far
+     * @param allowShort true if common short words may be used
+     * @return the start of the last word of each prefix in the best split,
+     * or null if the word cannot be split
+     */
+    private int[] split(String word, int longest, byte[] lookups, boolean allowShort) {
+        int length = word.length();
+        int[][] shortest = new int[MAX_SEGMENTS + 1][length + 1];
+        int[][] from = new int[MAX_SEGMENTS + 1][length + 1];
+        shortest[0][0] = Integer.MAX_VALUE;
+        for (int c = 1; c <= MAX_SEGMENTS; ++c) {
+            for (int end = 1; end <= length; ++end) {
+                for (int i = Math.max(0, end - longest); i < end; ++i) {
+                    int candidate = Math.min(shortest[c - 1][i], end - i);
+                    if (candidate > shortest[c][end] && isSegment(word, i, end, longest, lookups, allowShort)) {
+                        shortest[c][end] = candidate;
+                        from[c][end] = i;
+                    }
+                }
+            }
+            if (c >= 2 && shortest[c][length] > 0) {
+                //follow the best split back to the start of the word
+                int[] start = new int[length + 1];
+                for (int end = length, k = c; k > 0; end = start[end], --k) {
+                    start[end] = from[k][end];
+                }
+                return start;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Checks if the given part of a run-together word can be used as a word
+     *
+     * @param word the run-together word
+     * @param begin the index of the first character of the part
+     * @param end the index after the last character of the part
+     * @param longest the length of the longest word to use
+     * @param lookups the results of the dictionary lookups made so far
+     * @param allowShort true if common short words may be used
+     * @return true if the part is a dictionary word that may be used
+     */
+    private boolean isSegment(String word, int begin, int end, int longest, byte[] lookups, boolean allowShort) {
+        String part = null;
+        if (end - begin <= 2) {
+            part = word.substring(begin, end);
+            if (!allowShort || !SHORT_WORDS.contains(part)) {
+                return false;
+            }
+        }
+        int index = begin * (longest + 1) + end - begin;
+        if (lookups[index] == 0) {
+            lookups[index] = dictionary.contains(part != null ? part : word.substring(begin, end)) ? (byte) 1 : (byte) 2;
+        }
+        return lookups[index] == 1;
+    }
+
+    /*
+     * Checks if the file with the given name is a snapshot
+     *
+     * @param file the name of the file
+     * @return true if the file starts with the snapshot header
+     * @throws FileNotFoundException if the file is not found
+     */
+    private static boolean isSnapshot(String file) throws FileNotFoundException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == SNAPSHOT_MAGIC;
+        } catch (FileNotFoundException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            //the file is too short to be a snapshot
+            return false;
+        }
+    }
+
+    /*
+     * Initializes the dictionary from a snapshot created by saveSnapshot.
+     *
+     * @param file the name of the snapshot file
+     */
+    private void loadSnapshot(String file) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(file)));
+            requireBytes(buffer, 20); //the header fields before the table
+            buffer.getInt(); //the magic number was checked by isSnapshot
+            if (buffer.getInt() != SNAPSHOT_VERSION) {
+                System.out.printf("The snapshot, %s, was created by a different version of the Spell Checker.", file);
+                System.exit(1);
+            }
+            dictionaryHash = buffer.getLong();
+            longestWord = buffer.getInt();
+            dictionary = readTable(buffer, longestWord);
+        } catch (SnapshotFormatException ex) {
+            System.out.printf("The snapshot, %s, is corrupted: %s", file, ex.getMessage());
+            System.exit(1);
+        } catch (IOException ex) {
+            System.out.printf("There was a problem while reading %s.", file);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the table of the dictionary from a snapshot. Every count and
+     * length is checked against the number of bytes left before anything is
+     * allocated, so a corrupted snapshot cannot cause huge allocations. The
+     * length of the longest word stored in the header is checked against the
+     * words themselves because segmentation allocates memory based on it.
+     *
+     * @param buffer the snapshot, positioned after the header fields that
+     * precede the table size
+     * @param longestWord the length of the longest word according to the header
+     * @return the dictionary
+     * @throws SnapshotFormatException if the snapshot is truncated or corrupted
+     */
+    @SuppressWarnings("unchecked")
+    static HashSet<String> readTable(ByteBuffer buffer, int longestWord) throws SnapshotFormatException {
+        byte[] bytes = buffer.array();
+        requireBytes(buffer, 8);
+        int tableSize = buffer.getInt();
+        int size = buffer.getInt();
+        //every word takes at least 8 bytes and the table is only slightly larger than the number of words
+        if (size < 0 || size > buffer.remaining() / 8 || tableSize <= 0 || tableSize > 2 * size + 2) {
+            throw new SnapshotFormatException(String.format("invalid table size %d for %d words", tableSize, size));
+        }
+        ArrayBucket<String>[] table = (ArrayBucket<String>[]) new ArrayBucket[tableSize];
+        int longest = 0;
+        for (int remaining = size; remaining > 0;) {
+            requireBytes(buffer, 8);
+            int index = buffer.getInt();
+            int count = buffer.getInt();
+            if (index < 0 || index >= tableSize || table[index] != null) {
+                throw new SnapshotFormatException(String.format("invalid table index %d", index));
+            }
+            if (count <= 0 || count > remaining || count > buffer.remaining() / 8) {
+                throw new SnapshotFormatException(String.format("invalid bucket size %d", count));
+            }
+            ArrayBucket<String> bucket = new ArrayBucket<>(count);
+            for (int j = 0; j < count; ++j) {
+                requireBytes(buffer, 8);
+                int hash = buffer.getInt();
+                int length = buffer.getInt();
+                if (Math.floorMod(hash, tableSize) != index) {
+                    throw new SnapshotFormatException(String.format("a word is stored at the wrong table index %d", index));
+                }
+                requireBytes(buffer, length);
+                String word = new String(bytes, buffer.position(), length, StandardCharsets.UTF_8);
+                longest = Math.max(longest, word.length());
+                bucket.add(word, hash);
+                ((Buffer) buffer).position(buffer.position() + length); //through Buffer so that it links on Java 8
+            }
+            table[index] = bucket;
+            remaining -= count;
+        }
+        if (buffer.hasRemaining()) {
+            throw new SnapshotFormatException("unexpected data after the last word");
+        }
+        if (longest != longestWord) {
+            throw new SnapshotFormatException(String.format("the longest word has %d characters, not %d", longest, longestWord));
+        }
+        return new HashSet<>(table, size);
+    }
+
+    /*
+     * Checks that the buffer contains at least the given number of bytes
+     *
+     * @param buffer the buffer
+     * @param length the number of bytes required
+     * @throws SnapshotFormatException if the buffer has fewer bytes left
+     */
+    private static void requireBytes(ByteBuffer buffer, int length) throws SnapshotFormatException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new SnapshotFormatException("the file is truncated");
+        }
+    }
+
     /*
      * Initializes the dictionary using words from the file with the given name. The file is assumed to be in the working directory of the project.
      * @param file the file containing the list of words to use in the dictionary; each word should be on a separate line.
@@ -189,10 +589,38 @@ public class SpellChecker {
             dictionary = new HashSet<>(list.size());
             for (String temp : list) {
                 dictionary.add(temp);
+                longestWord = Math.max(longestWord, temp.length());
             }
+            dictionaryHash = hash(list);
         } catch (IOException ex) {
             System.out.printf("There was a problem while reading %s.", file);
             System.exit(1);
         }
     }
+
+    /*
+     * Computes a hash of the words in the dictionary. The hash is used to
+     * detect when a suggestion cache was built from a different dictionary.
+     *
+     * @param words the words in the dictionary
+     * @return the first 8 bytes of the SHA-256 digest of the words
+     */
+    private static long hash(ArrayList<String> words) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String word : words) {
+                digest.update(word.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            byte[] bytes = digest.digest();
+            long hash = 0;
+            for (int i = 0; i < 8; ++i) {
+                hash = (hash << 8) | (bytes[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256.
+            throw new InternalError(ex);
+        }
+    }
 }
@@ -0,0 +1,589 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SuggestionCache is a persistent, append-only cache of misspelled words and
+ * the suggestions that were found for them.
+ * <p>
+ * The cache file starts with a header containing the hash of the dictionary
+ * that produced its entries. If the file was written for a different
+ * dictionary, it is discarded and a new empty cache is created, so stale
+ * suggestions are never returned.
+ * <p>
+ * The file contains two kinds of records. A suggestion record stores a word,
+ * the number of times it has been looked up, and its suggestions. A hit record
+ * stores a new number of lookups for a word that is already in the file. New
+ * suggestions are appended as soon as they are added. The hits of the words
+ * looked up since the last checkpoint are appended after every 16 lookups and
+ * when the cache is closed, so at most 15 lookups are lost if the program ends
+ * without closing the cache.
+ * <p>
+ * Existing records are read through a memory-mapped view of the file. When
+ * opened, the cache preloads the suggestions of the words with the most hits.
+ * Once the file contains more outdated records than live ones, it is compacted
+ * in the background. Compaction writes one suggestion record per word into a
+ * new file without blocking lookups; records appended in the meantime are
+ * copied over before the new file replaces the old one.
+ * <p>
+ * A partially written last record, left by a program that ended while
+ * appending, is overwritten by the next record rather than truncated, because
+ * Windows does not allow a mapped file to be truncated. Windows also does not
+ * allow a mapped file to be replaced, so compaction fails there; the cache
+ * remains usable, but its file is never compacted.
+ * <p>
+ * The cache is safe to use from multiple threads, but a cache file can only be
+ * used by one SuggestionCache at a time. While it is open, the cache holds an
+ * exclusive lock on a file with the name of the cache file followed by .lock,
+ * and opening a cache file that is already in use, by this or another process,
+ * fails. The lock file is left in place when the cache is closed. File locks
+ * are only advisory on some systems, so other programs must not write to the
+ * cache file while it is in use.
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class SuggestionCache {
+
+    // Buffer methods such as flip and position are called through Buffer so that the classes run on Java 8, which lacks the ByteBuffer overrides.
+    private static final int MAGIC = 0x53434332; //"SCC2"
+    private static final int HEADER_SIZE = 12; //magic (4 bytes) and dictionary hash (8 bytes)
+    private static final byte SUGGESTION_RECORD = 1;
+    private static final byte HIT_RECORD = 2;
+    private static final int HIT_CHECKPOINT = 16; //the number of lookups between hit checkpoints
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private final Path path;
+    private final long dictionaryHash;
+    private final HashMap<String, Entry> entries;
+    private final ArrayList<Entry> pendingHits; //the entries whose hits changed since the last checkpoint
+    private final ExecutorService compactor;
+    private final Object compactionLock; //held for a whole compaction; always acquired before the cache itself
+    private final FileChannel lockChannel; //holds the lock that excludes other caches; never replaced by compaction
+    private FileChannel channel;
+    private MappedByteBuffer mapped; //a read-only view of the records present when the file was opened or compacted
+    private int records; //the number of records in the file, including outdated ones
+    private int lookups; //the number of lookups since the last checkpoint
+    private boolean compacting;
+    private boolean dirty; //true if records were appended since the file was opened or compacted
+    private boolean compactionFailed; //true if the file could not be replaced, so compaction is not tried again
+    private long end; //the offset after the last valid record, where the next record is appended
+
+    /**
+     * Opens the cache stored in the file with the given name, creating it if
+     * it does not exist, and preloads up to the given number of the hottest
+     * entries.
+     *
+     * @param file the name of the file containing the cache
+     * @param dictionaryHash the hash of the contents of the dictionary the
+     * cached suggestions are computed from
+     * @param preload the number of entries to read into memory immediately
+     * @throws IOException if the file cannot be read or written or is in use by
+     * another SuggestionCache
+     */
+    public SuggestionCache(String file, long dictionaryHash, int preload) throws IOException {
+        if (preload < 0) {
+            throw new IllegalArgumentException("Invalid preload. The number of entries to preload cannot be negative.");
+        }
+        this.path = Paths.get(file);
+        this.dictionaryHash = dictionaryHash;
+        this.entries = new HashMap<>();
+        this.pendingHits = new ArrayList<>();
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SuggestionCache compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactionLock = new Object();
+        this.lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = null;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            //another SuggestionCache in this JVM holds the lock
+        } catch (IOException | RuntimeException ex) {
+            lockChannel.close();
+            throw ex;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException(String.format("The cache file, %s, is in use by another program.", path));
+        }
+        try {
+            open(preload);
+        } catch (IOException | RuntimeException ex) {
+            if (channel != null) {
+                channel.close();
+            }
+            lockChannel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the cached suggestions for the given word
+     *
+     * @param word the misspelled word
+     * @return the suggestions for the word or null if the word is not cached
+     * @throws IOException if a hit checkpoint cannot be appended to the file
+     */
+    public synchronized String[] get(String word) throws IOException {
+        Entry entry = entries.get(word);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.suggestions == null) {
+            entry.suggestions = readSuggestions(mapped, entry.offset);
+        }
+        ++entry.hits;
+        if (!entry.pending) {
+            entry.pending = true;
+            pendingHits.add(entry);
+        }
+        if (++lookups >= HIT_CHECKPOINT) {
+            checkpoint();
+        }
+        return entry.suggestions.clone();
+    }
+
+    /**
+     * Adds the suggestions for the given word to the cache and appends them to
+     * the cache file
+     *
+     * @param word the misspelled word
+     * @param suggestions the suggestions for the word
+     * @throws IOException if the record cannot be appended to the file
+     */
+    public synchronized void put(String word, String[] suggestions) throws IOException {
+        Entry entry = entries.get(word);
+        if (entry == null) {
+            entry = new Entry(word);
+            entries.put(word, entry);
+        }
+        entry.suggestions = suggestions.clone();
+        ++entry.hits;
+        append(encode(word, entry.hits, entry.suggestions), 1);
+    }
+
+    /**
+     * Gets the number of words stored in the cache
+     *
+     * @return the number of words stored in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Appends the hits of the words looked up since the last checkpoint to the
+     * cache file
+     *
+     * @throws IOException if the hits cannot be appended to the file
+     */
+    public synchronized void checkpoint() throws IOException {
+        lookups = 0;
+        if (pendingHits.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[pendingHits.size()];
+        int length = 0;
+        for (int i = 0; i < buffers.length; ++i) {
+            Entry entry = pendingHits.get(i);
+            buffers[i] = encodeHits(entry.word, entry.hits);
+            length += buffers[i].remaining();
+            entry.pending = false;
+        }
+        pendingHits.clear();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (ByteBuffer record : buffers) {
+            buffer.put(record);
+        }
+        ((Buffer) buffer).flip();
+        append(buffer, buffers.length);
+    }
+
+    /**
+     * Rewrites the cache file so that it contains exactly one suggestion
+     * record per word, ordered from the most to the least frequently looked up
+     * word. Lookups and additions can continue while the new file is written.
+     *
+     * @throws IOException if the file cannot be rewritten
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            Entry[] live;
+            int[] hits;
+            String[][] loaded;
+            MappedByteBuffer source;
+            long start;
+            int startRecords;
+            synchronized (this) {
+                live = entries.values().toArray(new Entry[entries.size()]);
+                hits = new int[live.length];
+                loaded = new String[live.length][];
+                for (int i = 0; i < live.length; ++i) {
+                    hits[i] = live[i].hits;
+                    loaded[i] = live[i].suggestions;
+                }
+                source = mapped;
+                start = end;
+                startRecords = records;
+            }
+            ArrayList<Integer> order = new ArrayList<>(live.length);
+            for (int i = 0; i < live.length; ++i) {
+                order.add(i);
+            }
+            Collections.sort(order, (a, b) -> Integer.compare(hits[b], hits[a]));
+            int[] offsets = new int[live.length];
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    out.write(header());
+                    for (int i : order) {
+                        //suggestions that are not in memory are read from the old file without keeping them
+                        String[] suggestions = loaded[i] != null ? loaded[i] : readSuggestions(source, live[i].offset);
+                        offsets[i] = (int) out.position();
+                        out.write(encode(live[i].word, hits[i], suggestions));
+                    }
+                    synchronized (this) {
+                        //copy the records appended while the new file was written
+                        for (long position = start; position < end;) {
+                            position += channel.transferTo(position, end - position, out);
+                        }
+                        out.force(true);
+                        if (out.size() > Integer.MAX_VALUE) {
+                            throw new IOException(String.format("The cache file, %s, is too large to be mapped.", path));
+                        }
+                        try {
+                            //the old file stays open until it is replaced, so a failed move leaves the cache usable
+                            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        } catch (IOException ex) {
+                            compactionFailed = true;
+                            throw ex;
+                        }
+                        channel.close();
+                        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        end = channel.size();
+                        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                        for (int i = 0; i < live.length; ++i) {
+                            live[i].offset = offsets[i];
+                        }
+                        records = live.length + records - startRecords;
+                        dirty = records > live.length;
+                    }
+                }
+            } catch (IOException ex) {
+                Files.deleteIfExists(temp);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Appends the pending hits, compacts the cache file if records were
+     * appended since it was opened and some of its records are outdated, and
+     * closes it. Any background compaction is finished first.
+     *
+     * @throws IOException if the file cannot be written or closed
+     */
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (compactionLock) {
+            boolean compact;
+            synchronized (this) {
+                if (!channel.isOpen()) {
+                    return;
+                }
+                checkpoint();
+                compact = dirty && !compactionFailed && records > entries.size();
+            }
+            if (compact) {
+                compact();
+            }
+            synchronized (this) {
+                channel.close();
+                lockChannel.close(); //releases the lock
+            }
+        }
+    }
+
+    /*
+     * Opens the cache file, replacing it if it was written for another
+     * dictionary, indexes the records it contains and preloads the
+     * suggestions of the hottest entries.
+     *
+     * @param preload the number of entries to read into memory immediately
+     * @throws IOException if the file cannot be read or written
+     */
+    private void open(int preload) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("The cache file, %s, is too large to be mapped.", path));
+        }
+        if (size < HEADER_SIZE || !hasValidHeader()) {
+            channel.truncate(0); //nothing is mapped yet
+            channel.write(header(), 0);
+            end = HEADER_SIZE;
+            return;
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        ByteBuffer buffer = mapped.duplicate();
+        ((Buffer) buffer).position(HEADER_SIZE);
+        int valid = HEADER_SIZE;
+        try {
+            while (buffer.hasRemaining()) {
+                int offset = buffer.position();
+                byte type = buffer.get();
+                String word = readString(buffer);
+                int hits = buffer.getInt();
+                if (type == SUGGESTION_RECORD) {
+                    int count = buffer.getInt();
+                    if (count < 0) {
+                        throw new BufferUnderflowException();
+                    }
+                    for (int i = 0; i < count; ++i) {
+                        skipString(buffer);
+                    }
+                    //a later record for the same word replaces an earlier one
+                    Entry entry = new Entry(word);
+                    entry.offset = offset;
+                    entry.hits = hits;
+                    entries.put(word, entry);
+                } else if (type == HIT_RECORD) {
+                    Entry entry = entries.get(word);
+                    if (entry != null) {
+                        entry.hits = hits;
+                    }
+                } else {
+                    throw new BufferUnderflowException();
+                }
+                valid = buffer.position();
+                ++records;
+            }
+        } catch (BufferUnderflowException ex) {
+            //the last record was only partially written, so it is overwritten by the next one
+            clear(valid, size);
+        }
+        end = valid;
+        ArrayList<Entry> hottest = new ArrayList<>(entries.values());
+        Collections.sort(hottest, (a, b) -> Integer.compare(b.hits, a.hits));
+        for (int i = 0; i < preload && i < hottest.size(); ++i) {
+            Entry entry = hottest.get(i);
+            entry.suggestions = readSuggestions(mapped, entry.offset);
+        }
+    }
+
+    /*
+     * Checks if the file begins with a header for the current dictionary
+     *
+     * @return true if the header matches the current dictionary
+     * @throws IOException if the header cannot be read
+     */
+    private boolean hasValidHeader() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(buffer, 0);
+        ((Buffer) buffer).flip();
+        return buffer.remaining() == HEADER_SIZE && buffer.getInt() == MAGIC && buffer.getLong() == dictionaryHash;
+    }
+
+    /*
+     * Appends records to the end of the cache file and starts a background
+     * compaction if enough of the records are outdated.
+     *
+     * @param buffer the encoded records
+     * @param count the number of records in the buffer
+     * @throws IOException if the records cannot be appended
+     */
+    private void append(ByteBuffer buffer, int count) throws IOException {
+        while (buffer.hasRemaining()) {
+            end += channel.write(buffer, end);
+        }
+        records += count;
+        dirty = true;
+        if (!compacting && !compactionFailed && !compactor.isShutdown() && records >= MIN_COMPACTION_RECORDS && records > 2 * entries.size()) {
+            compacting = true;
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /*
+     * Overwrites the given part of the file with zeros. A zero is not a valid
+     * record type, so the remains of a partially written record can never be
+     * read as a record once shorter records are appended over them.
+     *
+     * @param from the offset of the first byte to clear
+     * @param to the offset after the last byte to clear
+     * @throws IOException if the file cannot be written
+     */
+    private void clear(long from, long to) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(to - from, 8192));
+        for (long position = from; position < to;) {
+            ((Buffer) zeros).clear();
+            if (zeros.remaining() > to - position) {
+                ((Buffer) zeros).limit((int) (to - position));
+            }
+            position += channel.write(zeros, position);
+        }
+    }
+
+    /*
+     * Runs a compaction from the background thread. Failures are ignored
+     * because the uncompacted file is still valid.
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException ex) {
+            System.out.printf("The suggestion cache, %s, could not be compacted.%n", path);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /*
+     * Creates the header for the cache file
+     *
+     * @return a buffer containing the header
+     */
+    private ByteBuffer header() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC).putLong(dictionaryHash);
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /*
+     * Reads the suggestions of the suggestion record at the given offset
+     *
+     * @param source the mapped file containing the record
+     * @param offset the offset of the record
+     * @return the suggestions stored in the record
+     */
+    private static String[] readSuggestions(MappedByteBuffer source, int offset) {
+        ByteBuffer buffer = source.duplicate();
+        ((Buffer) buffer).position(offset + 1); //skip the record type
+        skipString(buffer);
+        buffer.getInt(); //skip the hits
+        String[] suggestions = new String[buffer.getInt()];
+        for (int i = 0; i < suggestions.length; ++i) {
+            suggestions[i] = readString(buffer);
+        }
+        return suggestions;
+    }
+
+    /*
+     * Encodes a suggestion record for the given word
+     *
+     * @param word the misspelled word
+     * @param hits the number of times the word has been looked up
+     * @param suggestions the suggestions for the word
+     * @return a buffer containing the encoded record
+     */
+    private static ByteBuffer encode(String word, int hits, String[] suggestions) {
+        byte[][] bytes = new byte[suggestions.length + 1][];
+        bytes[0] = word.getBytes(StandardCharsets.UTF_8);
+        int length = 13 + bytes[0].length; //the record type, word length, hits and suggestion count
+        for (int i = 0; i < suggestions.length; ++i) {
+            bytes[i + 1] = suggestions[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + bytes[i + 1].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(SUGGESTION_RECORD);
+        buffer.putInt(bytes[0].length).put(bytes[0]);
+        buffer.putInt(hits).putInt(suggestions.length);
+        for (int i = 1; i < bytes.length; ++i) {
+            buffer.putInt(bytes[i].length).put(bytes[i]);
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /*
+     * Encodes a hit record for the given word
+     *
+     * @param word the misspelled word
+     * @param hits the number of times the word has been looked up
+     * @return a buffer containing the encoded record
+     */
+    private static ByteBuffer encodeHits(String word, int hits) {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(9 + bytes.length); //the record type, word length and hits
+        buffer.put(HIT_RECORD);
+        buffer.putInt(bytes.length).put(bytes);
+        buffer.putInt(hits);
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /*
+     * Reads a length-prefixed UTF-8 string from the buffer
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Skips a length-prefixed string in the buffer
+     *
+     * @param buffer the buffer to read from
+     */
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        ((Buffer) buffer).position(buffer.position() + length);
+    }
+
+    /*
+     * A cached word. The suggestions are null until they are read from the
+     * mapped file.
+     */
+    private static class Entry {
+
+        private final String word;
+        private int offset;
+        private int hits;
+        private String[] suggestions;
+        private boolean pending; //true if the entry is in pendingHits
+
+        private Entry(String word) {
+            this.word = word;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ArrayBucket
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class ArrayBucketTest {
+
+    @Test
+    public void firstElementIsStoredInline() {
+        ArrayBucket<String> bucket = new ArrayBucket<>();
+        assertTrue(bucket.isEmpty());
+        bucket.add("box", 1);
+        assertEquals(1, bucket.size());
+        assertEquals("box", bucket.get(0));
+        assertEquals(1, bucket.hash(0));
+        assertTrue(bucket.contains("box", 1));
+        assertFalse(bucket.contains("box", 2));
+    }
+
+    @Test
+    public void bucketGrowsAfterTheFirstElement() {
+        for (int capacity : new int[]{0, 1, 2, 3}) {
+            ArrayBucket<String> bucket = capacity == 0 ? new ArrayBucket<>() : new ArrayBucket<>(capacity);
+            for (int i = 0; i < 20; ++i) {
+                bucket.add("w" + i, i);
+            }
+            assertEquals(20, bucket.size());
+            for (int i = 0; i < 20; ++i) {
+                assertEquals("w" + i, bucket.get(i));
+                assertEquals(i, bucket.hash(i));
+                assertTrue(bucket.contains("w" + i, i));
+            }
+        }
+    }
+
+    @Test
+    public void removingTheFirstElementMovesTheLastElementInline() {
+        ArrayBucket<String> bucket = new ArrayBucket<>();
+        bucket.add("a", 1);
+        bucket.add("b", 2);
+        bucket.add("c", 3);
+        assertTrue(bucket.remove("a", 1));
+        assertEquals(2, bucket.size());
+        assertEquals("c", bucket.get(0));
+        assertEquals(3, bucket.hash(0));
+        assertEquals("b", bucket.get(1));
+        assertFalse(bucket.contains("a", 1));
+        assertTrue(bucket.remove("c", 3));
+        assertEquals("b", bucket.get(0));
+        assertEquals(2, bucket.hash(0));
+        assertTrue(bucket.remove("b", 2));
+        assertTrue(bucket.isEmpty());
+        assertFalse(bucket.remove("b", 2));
+        bucket.add("d", 4);
+        bucket.add("e", 5);
+        assertArrayEquals(new Object[]{"d", "e"}, copy(bucket));
+    }
+
+    @Test
+    public void removingLaterElementMovesTheLastElementIntoTheGap() {
+        ArrayBucket<String> bucket = new ArrayBucket<>();
+        bucket.add("a", 1);
+        bucket.add("b", 2);
+        bucket.add("c", 3);
+        bucket.add("d", 4);
+        assertTrue(bucket.remove("b", 2));
+        assertArrayEquals(new Object[]{"a", "d", "c"}, copy(bucket));
+        assertEquals(4, bucket.hash(1));
+        assertFalse(bucket.remove("b", 2));
+        assertFalse(bucket.remove("c", 4));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getPastTheEndIsRejected() {
+        ArrayBucket<String> bucket = new ArrayBucket<>();
+        bucket.add("a", 1);
+        bucket.get(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacityIsRejected() {
+        new ArrayBucket<String>(-1);
+    }
+
+    @Test
+    public void randomOperationsMatchArrayList() {
+        Random random = new Random(610);
+        ArrayBucket<Integer> bucket = new ArrayBucket<>();
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            Integer element = random.nextInt(20);
+            int hash = element % 3; //collisions make remove compare elements with equal hashes
+            if (random.nextBoolean()) {
+                assertEquals(expected.contains(element), bucket.contains(element, hash));
+                if (!expected.contains(element)) {
+                    bucket.add(element, hash);
+                    expected.add(element);
+                }
+            } else {
+                assertEquals(expected.remove(element), bucket.remove(element, hash));
+            }
+            assertEquals(expected.size(), bucket.size());
+            ArrayList<Integer> actual = new ArrayList<>();
+            bucket.forEach(actual::add);
+            for (int j = 0; j < bucket.size(); ++j) {
+                assertEquals(actual.get(j), bucket.get(j));
+                assertEquals(actual.get(j) % 3, bucket.hash(j));
+            }
+            Collections.sort(actual);
+            ArrayList<Integer> sorted = new ArrayList<>(expected);
+            Collections.sort(sorted);
+            assertEquals(sorted, actual);
+        }
+    }
+
+    /*
+     * Copies the elements of the bucket into a new array
+     *
+     * @param bucket the bucket
+     * @return an array containing the elements of the bucket
+     */
+    private static Object[] copy(ArrayBucket<?> bucket) {
+        Object[] array = new Object[bucket.size()];
+        assertEquals(array.length, bucket.copyInto(array, 0));
+        return array;
+    }
+}
@@ -0,0 +1,165 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for HashSet
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class HashSetTest {
+
+    @Test
+    public void emptySetHasNoElements() {
+        HashSet<String> set = new HashSet<>(10);
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+        assertEquals(0, set.stream().count());
+        assertEquals(0, set.toArray(String[]::new).length);
+        assertFalse(set.remove("box"));
+        assertFalse(set.contains("box"));
+    }
+
+    @Test
+    public void iteratorSkipsEmptyBuckets() {
+        HashSet<String> set = new HashSet<>(1000);
+        set.add("box");
+        set.add("boo");
+        set.add("cat");
+        set.remove("boo"); //leaves an empty bucket in the table
+        assertEquals(Arrays.asList("box", "cat"), sorted(set.iterator()));
+        Iterator<String> iterator = set.iterator();
+        iterator.next();
+        iterator.next();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("next returned an element after the last one");
+        } catch (NoSuchElementException ex) {
+            //expected
+        }
+    }
+
+    @Test
+    public void elementsWithTheSameHashAreKeptApart() {
+        HashSet<Colliding> set = new HashSet<>(10);
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(set.add(new Colliding(i)));
+        }
+        assertFalse(set.add(new Colliding(3)));
+        assertTrue(set.remove(new Colliding(0)));
+        assertFalse(set.contains(new Colliding(0)));
+        for (int i = 1; i < 10; ++i) {
+            assertTrue(set.contains(new Colliding(i)));
+        }
+        assertEquals(9, set.size());
+        assertEquals(9, set.stream().distinct().count());
+    }
+
+    @Test
+    public void toArrayUsesTheGeneratedArray() {
+        HashSet<String> set = new HashSet<>(10);
+        set.add("box");
+        set.add("boo");
+        String[] array = set.toArray(String[]::new);
+        Arrays.sort(array);
+        assertArrayEquals(new String[]{"boo", "box"}, array);
+        assertEquals(String[].class, set.toArray(String.class).getClass());
+    }
+
+    @Test
+    public void clearRemovesAllElements() {
+        HashSet<String> set = new HashSet<>(10);
+        set.add("box");
+        set.add("boo");
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains("box"));
+        assertFalse(set.iterator().hasNext());
+        assertTrue(set.add("box"));
+    }
+
+    @Test
+    public void randomOperationsMatchJavaUtilHashSet() {
+        Random random = new Random(610);
+        HashSet<Integer> set = new HashSet<>(50);
+        java.util.HashSet<Integer> expected = new java.util.HashSet<>();
+        for (int i = 0; i < 20000; ++i) {
+            Integer element = random.nextInt(400) - 200; //negative hash codes must map to valid indexes
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(element), set.add(element));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(element), set.remove(element));
+                    break;
+                default:
+                    assertEquals(expected.contains(element), set.contains(element));
+            }
+            assertEquals(expected.size(), set.size());
+            if (i % 100 == 0) {
+                ArrayList<Integer> elements = new ArrayList<>(expected);
+                Collections.sort(elements);
+                assertEquals(elements, sorted(set.iterator()));
+                ArrayList<Integer> visited = new ArrayList<>();
+                set.forEach(visited::add);
+                Collections.sort(visited);
+                assertEquals(elements, visited);
+                assertEquals(elements, set.stream().sorted().collect(Collectors.toList()));
+                Integer[] array = set.toArray(Integer[]::new);
+                Arrays.sort(array);
+                assertEquals(elements, Arrays.asList(array));
+            }
+        }
+    }
+
+    /*
+     * Collects the remaining elements of the iterator into a sorted list
+     *
+     * @param iterator the iterator
+     * @return the sorted elements
+     */
+    private static <E extends Comparable<? super E>> ArrayList<E> sorted(Iterator<E> iterator) {
+        ArrayList<E> list = new ArrayList<>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    /*
+     * An element whose hash code is the same for every instance
+     */
+    private static class Colliding {
+
+        private final int value;
+
+        private Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Colliding && ((Colliding) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for SpellChecker
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class SpellCheckerTest {
+
+    private static final int SNAPSHOT_HEADER_SIZE = 20; //magic, version, dictionary hash and longest word
+    private static final String[] WORDS = {"a", "b", "i", "o", "x", "box", "boo", "cat", "in", "is", "it", "mo",
+        "row", "sat", "sit", "some", "something", "the", "there", "therein", "thing", "till", "tom", "un", "until"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File dictionary;
+    private SpellChecker checker;
+
+    @Before
+    public void setUp() throws IOException {
+        dictionary = folder.newFile("dictionary.txt");
+        Files.write(dictionary.toPath(), Arrays.asList(WORDS), StandardCharsets.UTF_8);
+        checker = new SpellChecker(dictionary.getPath());
+    }
+
+    @Test
+    public void runTogetherWordsAreSplit() {
+        assertEquals("in the", checker.segment("inthe"));
+        assertEquals("the cat sat", checker.segment("thecatsat"));
+        assertTrue(Arrays.asList(checker.checkWord("inthe")).contains("in the"));
+    }
+
+    @Test
+    public void splitWordsAreJoined() {
+        assertEquals("something", checker.segment("some thing"));
+        assertEquals("something", checker.segment("so me thi ng"));
+        assertNull(checker.segment("some cat"));
+    }
+
+    @Test
+    public void splitWithFewestAndLongestWordsIsPreferred() {
+        assertEquals("is it", checker.segment("isit"));
+        assertEquals("something sat", checker.segment("somethingsat"));
+    }
+
+    @Test
+    public void uncommonShortWordsAreNotUsed() {
+        assertNull(checker.segment("untill"));
+        assertNull(checker.segment("tommorow"));
+        assertNull(checker.segment("boxb"));
+    }
+
+    @Test
+    public void atMostThreeWordsAreUsed() {
+        assertNull(checker.segment("thecatsatthecat"));
+    }
+
+    @Test
+    public void longGarbageIsRejected() {
+        char[] letters = new char[10000];
+        Arrays.fill(letters, 'q');
+        assertNull(checker.segment(new String(letters)));
+        assertNull(checker.segment("qzxqzxqzx"));
+    }
+
+    @Test
+    public void longDictionaryLinesDoNotWidenSegmentation() throws IOException {
+        char[] letters = new char[100000];
+        Arrays.fill(letters, 'q');
+        String garbage = new String(letters);
+        Files.write(dictionary.toPath(), Arrays.asList(garbage), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        checker = new SpellChecker(dictionary.getPath());
+        assertEquals("in the", checker.segment("inthe"));
+        assertNull(checker.segment(garbage + "the"));
+        assertNull(checker.segment(garbage.substring(0, 200)));
+    }
+
+    @Test
+    public void singleEditSuggestionsAreStillFound() {
+        assertArrayEquals(new String[]{"boo", "box"}, checker.checkWord("bxo"));
+        assertArrayEquals(new String[]{"box"}, checker.checkWord("box"));
+    }
+
+    @Test
+    public void snapshotRoundTripKeepsTheDictionary() throws IOException {
+        File snapshot = folder.newFile("dictionary.snapshot");
+        checker.saveSnapshot(snapshot.getPath());
+        SpellChecker loaded = new SpellChecker(snapshot.getPath());
+        for (String word : WORDS) {
+            assertArrayEquals(new String[]{word}, loaded.checkWord(word));
+        }
+        for (String word : new String[]{"bxo", "untill", "inthe", "thecatsat", "some thing", "qzx"}) {
+            assertArrayEquals(word, checker.checkWord(word), loaded.checkWord(word));
+        }
+        assertEquals(WORDS.length, readTable(Files.readAllBytes(snapshot.toPath())).size());
+    }
+
+    @Test
+    public void snapshotOfSnapshotIsIdentical() throws IOException {
+        File snapshot = folder.newFile("dictionary.snapshot");
+        File copy = folder.newFile("copy.snapshot");
+        checker.saveSnapshot(snapshot.getPath());
+        new SpellChecker(snapshot.getPath()).saveSnapshot(copy.getPath());
+        assertArrayEquals(Files.readAllBytes(snapshot.toPath()), Files.readAllBytes(copy.toPath()));
+    }
+
+    @Test
+    public void truncatedSnapshotIsRejected() throws IOException {
+        byte[] bytes = snapshot();
+        assertCorrupted(Arrays.copyOf(bytes, bytes.length - 1));
+        assertCorrupted(Arrays.copyOf(bytes, SNAPSHOT_HEADER_SIZE + 6));
+    }
+
+    @Test
+    public void snapshotWithTrailingDataIsRejected() throws IOException {
+        byte[] bytes = snapshot();
+        assertCorrupted(Arrays.copyOf(bytes, bytes.length + 1));
+    }
+
+    @Test
+    public void snapshotWithInvalidSizesIsRejected() throws IOException {
+        byte[] bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE + 4, Integer.MAX_VALUE); //number of words
+        assertCorrupted(bytes);
+        bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE, Integer.MAX_VALUE); //table size
+        assertCorrupted(bytes);
+        bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE + 12, Integer.MAX_VALUE); //size of the first bucket
+        assertCorrupted(bytes);
+        bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE + 20, Integer.MAX_VALUE); //length of the first word
+        assertCorrupted(bytes);
+        bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE - 4, 200000000); //length of the longest word
+        assertCorrupted(bytes);
+        bytes = snapshot();
+        ByteBuffer.wrap(bytes).putInt(SNAPSHOT_HEADER_SIZE - 4, "something".length() - 1);
+        assertCorrupted(bytes);
+    }
+
+    @Test
+    public void snapshotWithMisplacedWordIsRejected() throws IOException {
+        byte[] bytes = snapshot();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(SNAPSHOT_HEADER_SIZE + 16, buffer.getInt(SNAPSHOT_HEADER_SIZE + 16) + 1); //hash of the first word
+        assertCorrupted(bytes);
+    }
+
+    /*
+     * Saves the dictionary of the checker to a snapshot
+     *
+     * @return the contents of the snapshot
+     */
+    private byte[] snapshot() throws IOException {
+        File snapshot = folder.newFile();
+        checker.saveSnapshot(snapshot.getPath());
+        return Files.readAllBytes(snapshot.toPath());
+    }
+
+    /*
+     * Reads the table of the dictionary from the contents of a snapshot
+     *
+     * @param bytes the contents of the snapshot
+     * @return the dictionary
+     */
+    private static HashSet<String> readTable(byte[] bytes) throws SnapshotFormatException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ((Buffer) buffer).position(SNAPSHOT_HEADER_SIZE); //through Buffer so that it links on Java 8
+        return SpellChecker.readTable(buffer, buffer.getInt(SNAPSHOT_HEADER_SIZE - 4));
+    }
+
+    /*
+     * Checks that the table of the snapshot is rejected as corrupted
+     *
+     * @param bytes the contents of the snapshot
+     */
+    private static void assertCorrupted(byte[] bytes) {
+        try {
+            readTable(bytes);
+            fail("The corrupted snapshot was loaded");
+        } catch (SnapshotFormatException ex) {
+            //expected
+        }
+    }
+}
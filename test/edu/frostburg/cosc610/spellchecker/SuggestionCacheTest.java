@@ -0,0 +1,207 @@
+package edu.frostburg.cosc610.spellchecker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the on-disk format of SuggestionCache
+ *
+ * @author Kerwin Yoder
+ * @version 2016.04.30
+ */
+public class SuggestionCacheTest {
+
+    private static final long HASH = 610;
+    private static final int HEADER_SIZE = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesSurviveReopening() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        cache.put("bux", new String[]{"box"});
+        cache.close();
+        cache = new SuggestionCache(file, HASH, 1);
+        assertEquals(2, cache.size());
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        assertArrayEquals(new String[]{"box"}, cache.get("bux"));
+        assertNull(cache.get("bx"));
+        cache.close();
+    }
+
+    @Test
+    public void entriesSurviveWithoutClosing() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        try {
+            cache.put("bxo", new String[]{"boo", "box"});
+            SuggestionCache reopened = new SuggestionCache(copy(file), HASH, 10);
+            assertArrayEquals(new String[]{"boo", "box"}, reopened.get("bxo"));
+            reopened.close();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void fileInUseIsRejected() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        try {
+            new SuggestionCache(file, HASH, 10);
+            fail("A cache file in use was opened");
+        } catch (IOException ex) {
+            //expected
+        }
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        cache.close();
+        cache = new SuggestionCache(file, HASH, 10);
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        cache.close();
+    }
+
+    @Test
+    public void differentDictionaryHashDiscardsEntries() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        cache.close();
+        cache = new SuggestionCache(file, HASH + 1, 10);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("bxo"));
+        cache.close();
+        assertEquals(HEADER_SIZE, new File(file).length());
+    }
+
+    @Test
+    public void partiallyWrittenRecordIsDiscarded() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        cache.put("bux", new String[]{"box"});
+        cache.close();
+        long length;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+            length = raf.length();
+        }
+        cache = new SuggestionCache(file, HASH, 10);
+        assertEquals(length, new File(file).length());
+        assertEquals(1, cache.size());
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        assertNull(cache.get("bux"));
+        //shorter than the discarded record, so the rest of that record must not be read back
+        cache.put("q", new String[0]);
+        cache.close();
+        cache = new SuggestionCache(file, HASH, 10);
+        assertEquals(2, cache.size());
+        assertArrayEquals(new String[0], cache.get("q"));
+        cache.put("bux", new String[]{"box"});
+        cache.close();
+        cache = new SuggestionCache(file, HASH, 10);
+        assertEquals(3, cache.size());
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        assertArrayEquals(new String[]{"box"}, cache.get("bux"));
+        cache.close();
+    }
+
+    @Test
+    public void hitsArePersistedWithoutClosing() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        try {
+            for (int i = 0; i < 100; ++i) {
+                cache.put("w" + i, new String[]{"s" + i});
+            }
+            for (int i = 0; i < 32; ++i) {
+                cache.get("w99");
+            }
+            String copy = copy(file);
+            SuggestionCache reopened = new SuggestionCache(copy, HASH, 0);
+            reopened.compact();
+            assertEquals("w99", firstWord(copy));
+            reopened.close();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void compactionKeepsEntriesInOrderOfHits() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        cache.put("bux", new String[]{"box"});
+        cache.get("bux");
+        cache.compact();
+        assertEquals("bux", firstWord(file));
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        cache.put("bx", new String[]{"box"});
+        cache.close();
+        cache = new SuggestionCache(file, HASH, 0);
+        assertEquals(3, cache.size());
+        assertArrayEquals(new String[]{"box"}, cache.get("bx"));
+        assertArrayEquals(new String[]{"boo", "box"}, cache.get("bxo"));
+        cache.close();
+    }
+
+    @Test
+    public void closingUnchangedCacheDoesNotRewriteIt() throws IOException {
+        String file = folder.newFile().getPath();
+        SuggestionCache cache = new SuggestionCache(file, HASH, 10);
+        cache.put("bxo", new String[]{"boo", "box"});
+        cache.put("bxo", new String[]{"box"});
+        cache.close();
+        long length = new File(file).length();
+        long modified = new File(file).lastModified();
+        cache = new SuggestionCache(file, HASH, 10);
+        cache.close();
+        assertEquals(length, new File(file).length());
+        assertEquals(modified, new File(file).lastModified());
+    }
+
+    /*
+     * Copies a cache file that is in use, as if the program using it had ended
+     * without closing it
+     *
+     * @param file the name of the cache file
+     * @return the name of the copy
+     */
+    private String copy(String file) throws IOException {
+        File copy = folder.newFile();
+        Files.copy(new File(file).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy.getPath();
+    }
+
+    /*
+     * Reads the word of the first record in the cache file
+     *
+     * @param file the name of the cache file
+     * @return the word of the first record
+     */
+    private static String firstWord(String file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(new File(file).toPath()));
+        buffer.getInt(); //magic
+        buffer.getLong(); //dictionary hash
+        buffer.get(); //record type
+        byte[] word = new byte[buffer.getInt()];
+        buffer.get(word);
+        return new String(word, StandardCharsets.UTF_8);
+    }
+}